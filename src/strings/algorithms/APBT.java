@@ -282,7 +282,10 @@ public class APBT
 	}
 	
 	/**
-	 * This function allows to serialize the solutions List into a file, which can be read and processed by another program.
+	 * This function allows to serialize the solutions List into a file, which can be used as the previous run
+	 * of processIncrementally. The file holds six ints written with ObjectOutputStream.writeInt:
+	 * minLength, maxDiff, length of string 1, hash of string 1 (as String.hashCode()), length of string 2,
+	 * and 1 if solutions is the full list returned by getSolutions() or 0 otherwise, followed by the solutions List object.
 	 * @param solutions - full or maximal list of solutions
 	 * @param outputfilename - the name of binary file where the solution LinkedList object will be saved
 	 */
@@ -290,6 +293,12 @@ public class APBT
 		try		{
 			FileOutputStream out = new FileOutputStream(outputfilename);
 			ObjectOutputStream s = new ObjectOutputStream(out);
+			s.writeInt(_minLength);
+			s.writeInt(_maxDiff);
+			s.writeInt(_length1);
+			s.writeInt(sequence1Hash());
+			s.writeInt(_length2);
+			s.writeInt(solutions==_solutions?1:0);
 			s.writeObject(solutions);	
 			s.flush();
 			s.close();
@@ -297,7 +306,112 @@ public class APBT
 		}
 		catch(Exception e){}
 	}
-	
+
+	/**
+	 * This function produces the same solutions as process(), reusing the solutions of a previous full run
+	 * for one edit of the input strings: deletedLength characters at editPosition were replaced by insertedLength
+	 * new characters (an append is an edit at the end of the old string with deletedLength=0).
+	 * The strings given to the constructor are the edited ones. Positions are counted in the strings
+	 * as read by SequenceFileReader, that is without whitespace and line breaks.
+	 *
+	 * Chunks of string 2 are processed independently, so only the chunks whose window
+	 * (the chunk plus _maxLength characters) differs from the previous run are recomputed.
+	 * Chunks after the edit are reused only if the length change is a multiple of CHUNK_SIZE.
+	 * Paths starting in different rows of a chunk share the pruning state,
+	 * so an edit of string 1 changes all chunks: the previous run is checked, but all chunks are recomputed.
+	 * @param previousSolutionsFile - the file where the full list of solutions of the previous run was saved with savePatterns
+	 * @param editedSequence - 1 or 2, the string which was edited
+	 * @param editPosition - start of the edit, the same in the old and in the new string
+	 * @param deletedLength - the number of characters of the old string removed at editPosition
+	 * @param insertedLength - the number of characters of the new string inserted at editPosition
+	 * @return the number of recomputed chunks
+	 * @throws IllegalArgumentException if the edit does not fit the old string, or if the previous run
+	 * cannot be read, holds maximal solutions, or was produced with other parameters or for other strings:
+	 * string 1 (its length only, if string 1 was edited) and the length of string 2
+	 */
+	public int processIncrementally(String previousSolutionsFile, int editedSequence,
+			int editPosition, int deletedLength, int insertedLength)	{
+		if(editedSequence!=1 && editedSequence!=2)
+			throw new IllegalArgumentException("Edited sequence must be 1 or 2, not "+editedSequence);
+
+		int delta=insertedLength-deletedLength;
+		int oldLength=(editedSequence==1?_length1:_length2)-delta;
+		if(editPosition<0 || deletedLength<0 || insertedLength<0 || editPosition+deletedLength>oldLength)
+			throw new IllegalArgumentException("Edit ("+editPosition+","+deletedLength+","+insertedLength+
+					") does not fit string "+editedSequence+" of length "+oldLength);
+
+		int [] parameters=new int[6];
+		List previousSolutions=loadPatterns(previousSolutionsFile,parameters);
+		if(previousSolutions==null)
+			throw new IllegalArgumentException("File "+previousSolutionsFile +" is not found where expected, is of invalid type "+
+					"or holds maximal solutions. ");
+		if(parameters[0]!=_minLength || parameters[1]!=_maxDiff)
+			throw new IllegalArgumentException("File "+previousSolutionsFile+" was produced for minLength="+parameters[0]+
+					" and maxDiff="+parameters[1]);
+
+		int numberOfChunks=(_length2+_chunkSize-1)/_chunkSize;
+		if(editedSequence==1)	{
+			if(parameters[2]!=oldLength)
+				throw new IllegalArgumentException("File "+previousSolutionsFile+" was produced for string 1 of length "+parameters[2]+
+						", but the edit requires length "+oldLength);
+			if(parameters[4]!=_length2)
+				throw new IllegalArgumentException("File "+previousSolutionsFile+" was produced for string 2 of length "+parameters[4]+
+						" instead of "+_length2);
+			process();
+			return numberOfChunks;
+		}
+
+		int oldLength2=oldLength;
+		if(parameters[2]!=_length1 || parameters[3]!=sequence1Hash())
+			throw new IllegalArgumentException("File "+previousSolutionsFile+" was produced for another string 1");
+		if(parameters[4]!=oldLength2)
+			throw new IllegalArgumentException("File "+previousSolutionsFile+" was produced for string 2 of length "+parameters[4]+
+					", but the edit requires length "+oldLength2);
+
+		//group previous solutions by the chunk of their start in string 2, keeping the order of the previous run
+		Map previousChunks=new HashMap();
+		for(Iterator it=previousSolutions.iterator();it.hasNext();)	{
+			Interval curr=(Interval)it.next();
+			Integer chunk=new Integer(curr.getStart().getIndex2()/_chunkSize);
+			List chunkSolutions=(List)previousChunks.get(chunk);
+			if(chunkSolutions==null)	{
+				chunkSolutions=new LinkedList();
+				previousChunks.put(chunk,chunkSolutions);
+			}
+			chunkSolutions.add(curr);
+		}
+
+		int recomputed=0;
+		for(int k=0;k<numberOfChunks;k++)	{
+			int startJ=k*_chunkSize;
+			int oldStartJ=-1;
+
+			if(chunkEnd(startJ,_length2,_maxLength+1)<=editPosition)
+				oldStartJ=startJ;
+			else if(delta%_chunkSize==0 && startJ-delta>=editPosition+deletedLength)
+				oldStartJ=startJ-delta;
+
+			if(oldStartJ>=0
+					&& chunkEnd(oldStartJ,oldLength2,_maxLength+1)-oldStartJ==chunkEnd(startJ,_length2,_maxLength+1)-startJ
+					&& Math.max(chunkEnd(oldStartJ,oldLength2-_minLength+1,0)-oldStartJ,0)
+						==Math.max(chunkEnd(startJ,_length2-_minLength+1,0)-startJ,0))	{
+				List chunkSolutions=(List)previousChunks.get(new Integer(oldStartJ/_chunkSize));
+				if(chunkSolutions!=null)	{
+					for(Iterator it=chunkSolutions.iterator();it.hasNext();)	{
+						Interval curr=(Interval)it.next();
+						addToSolutions(curr.getStart().getIndex1(), curr.getStart().getIndex2()+startJ-oldStartJ,
+								curr.getEnd().getIndex1(), curr.getEnd().getIndex2()+startJ-oldStartJ);
+					}
+				}
+			}
+			else	{
+				process(startJ);
+				recomputed++;
+			}
+		}
+		return recomputed;
+	}
+
 	/**
 	 * We try to expand paths to maximal length, but some of them may still be non-maximal.
 	 * This method is called in order to output only maximal solurtions.
@@ -367,6 +481,44 @@ public class APBT
 		}		
 	}	
 	
+	/** Reads the full list of solutions saved with savePatterns together with the header
+	 * of the run which produced them, in the order described in savePatterns.
+	 * @param parameters - array of 6 ints to be filled with the header
+	 * @return the List of solutions, or null if the file cannot be read or holds maximal solutions
+	 */
+	private List loadPatterns(String inputfilename, int [] parameters)	{
+		try		{
+			FileInputStream in = new FileInputStream(inputfilename);
+			ObjectInputStream s = new ObjectInputStream(in);
+			for(int i=0;i<parameters.length;i++)
+				parameters[i]=s.readInt();
+			List solutions=(List)s.readObject();
+			s.close();
+			in.close();
+			if(parameters[5]!=1)
+				return null;
+			return solutions;
+		}
+		catch(Exception e){}
+		return null;
+	}
+
+	/** @return the hash of string 1 - the same as String.hashCode(), without copying the char array into a String
+	 */
+	private int sequence1Hash()	{
+		int hash=0;
+		for(int i=0;i<_length1;i++)
+			hash=31*hash+_seq1[i];
+		return hash;
+	}
+
+	/** @return the end of the chunk starting at startJ, extended by extraLength and bounded by length2 -
+	 * the same bounds as used by process(startJ)
+	 */
+	private int chunkEnd(int startJ, int length2, int extraLength)	{
+		return Math.min(startJ+_chunkSize+extraLength, length2);
+	}
+
 	/** Initialises a new path of ML=1, EN=0, starting from current true cell of the matrix
 	*/	
 	private void createPaths(int startI, int startJ ,int shiftJ) {		
@@ -450,7 +602,7 @@ public class APBT
 	 * The class implements Serializable Interface in order to be saved to and read from disk.
 	 */
 
-	private class Interval implements java.io.Serializable	{
+	private static class Interval implements java.io.Serializable	{
 		IndexPair _first;
 		IndexPair _last;		
 
@@ -554,6 +706,13 @@ public class APBT
 		boolean maximalSolutions=false;
 		boolean printOutput=false;
 		
+		String outputFile=null;
+		String previousFile=null;
+		int editedSequence=0;
+		int editPosition=0;
+		int deletedLength=0;
+		int insertedLength=0;
+		
 		try		{
 			file1=args[0];		
 			file2=args[1];
@@ -569,12 +728,28 @@ public class APBT
 			int print=Integer.parseInt(args[5]);
 			if(print==1)
 				printOutput=true;
+			
+			if(args.length>6)
+				outputFile=args[6];
+			
+			if(args.length>7)	{
+				previousFile=args[7];
+				editedSequence=Integer.parseInt(args[8]);
+				editPosition=Integer.parseInt(args[9]);
+				deletedLength=Integer.parseInt(args[10]);
+				insertedLength=Integer.parseInt(args[11]);
+				if(editedSequence!=1 && editedSequence!=2)
+					throw new IllegalArgumentException();
+			}
 		}
 		catch(Exception e)		{
 			System.out.println("Usage: \n" + 
 					"java -Xmx512M -Xms512m strings.algorithms.APBT \\ \n" +
             		"<filename1> <filename2> \\ \n" +
-            		"<minLength> <maxDifferences> <maximalOutput: 1 | 0> <printStdOutput: 1 | 0>" );
+            		"<minLength> <maxDifferences> <maximalOutput: 1 | 0> <printStdOutput: 1 | 0> \\ \n" +
+            		"[<outputSolutionsFile> [<previousSolutionsFile> <editedSequence: 1 | 2> " +
+            		"<editPosition> <deletedLength> <insertedLength>]] \n" +
+            		"Edit positions are counted in the sequence without whitespace and line breaks, not in the file." );
 			System.exit(1);
 		}	
 		
@@ -584,13 +759,28 @@ public class APBT
 				minLen,maxDiff);
 		
 		long start=System.currentTimeMillis();
-		algorithm.process();					
+		if(previousFile!=null)	{
+			try		{
+				int recomputed=algorithm.processIncrementally(previousFile,editedSequence,
+						editPosition,deletedLength,insertedLength);
+				System.out.println("Recomputed chunks="+recomputed);
+			}
+			catch(IllegalArgumentException e)	{
+				System.out.println(e.getMessage());
+				System.exit(1);
+			}
+		}
+		else
+			algorithm.process();					
 
 		long howlong=System.currentTimeMillis()-start;
 		System.out.println("Processed in "+howlong+" ms.");
 		List solutions=algorithm.getSolutions();
 		System.out.println("Produced output size="+solutions.size());
 		
+		if(outputFile!=null)
+			algorithm.savePatterns(solutions,outputFile);
+		
 		if(maximalSolutions)	{
 			if(solutions.size()>10000)	{
 				System.out.println("Producing maximal solutions may be time consuming.");